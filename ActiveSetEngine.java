@@ -0,0 +1,293 @@
+import java.awt.*;
+import java.util.*;
+
+// Opt-in engine equivalent to ReferenceEngine that reuses cached neighborhoods and moves of StatelessCritters
+public class ActiveSetEngine extends ReferenceEngine implements CritterWorldListener {
+    private static final Critter.Neighbor[] NEIGHBORS = Critter.Neighbor.values();
+    private static final Critter.Direction[] DIRECTIONS = Critter.Direction.values();
+    // Offsets matching CritterWorld.getNextPosition, indexed by Direction ordinal
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int UNKNOWN = -1;
+
+    private final Map<Class<? extends Critter>, Critter.Action[]> moves;
+    private CritterWorld world;
+    private int width;
+    private int height;
+
+    // Per cell: occupying slot, last change of occupant and last turn
+    private int[] slotAt;
+    private long[] occupiedStamps;
+    private long[] turnedStamps;
+    private long clock;
+
+    // Per slot, in the world's insertion order; a null critter marks a removed slot
+    private Critter[] critters;
+    private CritterWorld.CritterData[] datas;
+    private Critter.Action[][] moveTables;
+    private int[] codes;
+    private long[] codeStamps;
+    private boolean[] idle;
+    private int slotCount;
+    private int liveCount;
+    private int[] order;
+
+    public ActiveSetEngine() {
+        this.moves = new HashMap<>();
+    }
+
+    @Override
+    public void step(CritterWorld world) {
+        if (this.world != world) {
+            attach(world);
+        }
+        if (slotCount > 2 * liveCount + 16) {
+            compact();
+        }
+        if (order.length < slotCount) {
+            order = new int[critters.length];
+        }
+
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (critters[slot] != null) {
+                order[count++] = slot;
+            }
+        }
+        // Same swaps as Collections.shuffle on a RandomAccess list, so the order matches ReferenceEngine
+        Random random = world.getRandom();
+        for (int i = count; i > 1; i--) {
+            int j = random.nextInt(i);
+            int swap = order[i - 1];
+            order[i - 1] = order[j];
+            order[j] = swap;
+        }
+
+        Set<Critter> lockedCritters = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            int slot = order[i];
+            if (critters[slot] == null) continue;
+
+            if (moveTables[slot] != null) {
+                stepStateless(world, slot, lockedCritters);
+            } else {
+                stepCritter(world, critters[slot], datas[slot], lockedCritters);
+            }
+        }
+    }
+
+    private void stepStateless(CritterWorld world, int slot, Set<Critter> lockedCritters) {
+        CritterWorld.CritterData data = datas[slot];
+        Point position = data.getPosition();
+        int code = codes[slot];
+        if (code == UNKNOWN || hasChanged(position, code, codeStamps[slot])) {
+            code = getNeighborhoodCode(position, critters[slot].getClass());
+            codes[slot] = code;
+            codeStamps[slot] = clock;
+        } else if (idle[slot]) {
+            // Same neighborhood and direction as a move that changed nothing
+            return;
+        }
+
+        Critter.Direction direction = data.getDirection();
+        int key = code << 2 | direction.ordinal();
+        Critter.Action action = moveTables[slot][key];
+        if (action == null) {
+            action = critters[slot].getMove(decode(key));
+            moveTables[slot][key] = action;
+        }
+
+        boolean hasHopped = world.clearHopped(data);
+        int front = (code >> (3 * direction.ordinal())) & 3;
+        if (action == Critter.Action.HOP || action == Critter.Action.INFECT) {
+            Point newPosition = CritterWorld.getNextPosition(position, direction);
+            handleAction(world, critters[slot], data, newPosition, action, hasHopped, lockedCritters);
+        } else {
+            // Turns never look at the cell in front
+            handleAction(world, critters[slot], data, null, action, hasHopped, lockedCritters);
+        }
+
+        if (data.getPosition() != position) {
+            codes[slot] = UNKNOWN;
+        }
+        idle[slot] = (action == Critter.Action.HOP && front != Critter.Neighbor.EMPTY.ordinal())
+                     || (action == Critter.Action.INFECT && front != Critter.Neighbor.OTHER.ordinal());
+    }
+
+    @Override
+    protected void handleAction(CritterWorld world, Critter critter, CritterWorld.CritterData data,
+                                Point newPosition, Critter.Action action, boolean hasHopped,
+                                Set<Critter> lockedCritters) {
+        super.handleAction(world, critter, data, newPosition, action, hasHopped, lockedCritters);
+        if (action == Critter.Action.LEFT || action == Critter.Action.RIGHT) {
+            Point position = data.getPosition();
+            turnedStamps[position.x * height + position.y] = ++clock;
+        }
+    }
+
+    @Override
+    public void critterAdded(Critter critter, Point position) {
+        int cell = position.x * height + position.y;
+        slotAt[cell] = addSlot(critter, world.getData(critter));
+        occupiedStamps[cell] = ++clock;
+    }
+
+    @Override
+    public void critterMoved(Critter critter, Point from, Point to) {
+        int fromCell = from.x * height + from.y;
+        int toCell = to.x * height + to.y;
+        slotAt[toCell] = slotAt[fromCell];
+        slotAt[fromCell] = UNKNOWN;
+        occupiedStamps[fromCell] = ++clock;
+        occupiedStamps[toCell] = clock;
+    }
+
+    @Override
+    public void critterInfected(Critter oldCritter, Critter newCritter, Point position) {
+        int cell = position.x * height + position.y;
+        int oldSlot = slotAt[cell];
+        critters[oldSlot] = null;
+        datas[oldSlot] = null;
+        moveTables[oldSlot] = null;
+        liveCount--;
+        slotAt[cell] = addSlot(newCritter, world.getData(newCritter));
+        occupiedStamps[cell] = ++clock;
+    }
+
+    private void attach(CritterWorld world) {
+        if (this.world != null) {
+            this.world.removeListener(this);
+        }
+        this.world = world;
+        this.width = world.getWidth();
+        this.height = world.getHeight();
+        this.slotAt = new int[width * height];
+        Arrays.fill(slotAt, UNKNOWN);
+        this.occupiedStamps = new long[width * height];
+        this.turnedStamps = new long[width * height];
+        this.critters = new Critter[16];
+        this.datas = new CritterWorld.CritterData[16];
+        this.moveTables = new Critter.Action[16][];
+        this.codes = new int[16];
+        this.codeStamps = new long[16];
+        this.idle = new boolean[16];
+        this.order = new int[16];
+        this.slotCount = 0;
+        this.liveCount = 0;
+
+        for (Critter critter : world.getCritters()) {
+            CritterWorld.CritterData data = world.getData(critter);
+            Point position = data.getPosition();
+            slotAt[position.x * height + position.y] = addSlot(critter, data);
+        }
+        world.addListener(this);
+    }
+
+    // The order array is resized at the start of the next step, since new slots appear mid-step
+    private int addSlot(Critter critter, CritterWorld.CritterData data) {
+        if (slotCount == critters.length) {
+            int capacity = critters.length * 2;
+            critters = Arrays.copyOf(critters, capacity);
+            datas = Arrays.copyOf(datas, capacity);
+            moveTables = Arrays.copyOf(moveTables, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            codeStamps = Arrays.copyOf(codeStamps, capacity);
+            idle = Arrays.copyOf(idle, capacity);
+        }
+
+        int slot = slotCount++;
+        critters[slot] = critter;
+        datas[slot] = data;
+        moveTables[slot] = critter instanceof StatelessCritter ? getMoveTable(critter.getClass()) : null;
+        codes[slot] = UNKNOWN;
+        idle[slot] = false;
+        liveCount++;
+        return slot;
+    }
+
+    // Drops removed slots while keeping insertion order; only called between steps
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (critters[slot] == null) continue;
+
+            critters[live] = critters[slot];
+            datas[live] = datas[slot];
+            moveTables[live] = moveTables[slot];
+            codes[live] = codes[slot];
+            codeStamps[live] = codeStamps[slot];
+            idle[live] = idle[slot];
+            Point position = datas[live].getPosition();
+            slotAt[position.x * height + position.y] = live;
+            live++;
+        }
+        Arrays.fill(critters, live, slotCount, null);
+        Arrays.fill(datas, live, slotCount, null);
+        Arrays.fill(moveTables, live, slotCount, null);
+        slotCount = live;
+    }
+
+    private Critter.Action[] getMoveTable(Class<? extends Critter> critterClass) {
+        Critter.Action[] table = moves.get(critterClass);
+        if (table == null) {
+            table = new Critter.Action[1 << 14];
+            moves.put(critterClass, table);
+        }
+        return table;
+    }
+
+    // Packs each absolute direction's neighbor (2 bits) and threat (1 bit) at bit 3 * ordinal
+    private int getNeighborhoodCode(Point position, Class<? extends Critter> critterClass) {
+        int code = 0;
+        for (int d = 0; d < 4; d++) {
+            int x = position.x + DX[d];
+            int y = position.y + DY[d];
+            Critter.Neighbor neighbor;
+            boolean threat = false;
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                neighbor = Critter.Neighbor.WALL;
+            } else if (world.getCritter(x, y) == null) {
+                neighbor = Critter.Neighbor.EMPTY;
+            } else if (world.getCritter(x, y).getClass().equals(critterClass)) {
+                neighbor = Critter.Neighbor.SAME;
+            } else {
+                neighbor = Critter.Neighbor.OTHER;
+                threat = datas[slotAt[x * height + y]].getDirection().ordinal() == d;
+            }
+            code |= (neighbor.ordinal() | (threat ? 4 : 0)) << (3 * d);
+        }
+        return code;
+    }
+
+    // A cached code is stale once a neighbor cell changes occupant, or an OTHER neighbor turns
+    private boolean hasChanged(Point position, int code, long since) {
+        for (int d = 0; d < 4; d++) {
+            int x = position.x + DX[d];
+            int y = position.y + DY[d];
+            if (x < 0 || x >= width || y < 0 || y >= height) continue;
+
+            int cell = x * height + y;
+            if (occupiedStamps[cell] > since) {
+                return true;
+            }
+            if (((code >> (3 * d)) & 3) == Critter.Neighbor.OTHER.ordinal() && turnedStamps[cell] > since) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Rebuilds the CritterInfo getCritterInfo would give for a move-table key
+    private CritterInfo decode(int key) {
+        int facing = key & 3;
+        int code = key >> 2;
+        Critter.Neighbor[] neighbors = new Critter.Neighbor[4];
+        boolean[] threats = new boolean[4];
+        for (int i = 0; i < 4; i++) {
+            int d = (facing + i) % 4;
+            neighbors[i] = NEIGHBORS[(code >> (3 * d)) & 3];
+            threats[i] = ((code >> (3 * d)) & 4) != 0;
+        }
+        return new CritterInfoImpl(neighbors, DIRECTIONS[facing], threats);
+    }
+}
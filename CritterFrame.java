@@ -11,6 +11,8 @@ public class CritterFrame extends JFrame {
     private Timer myTimer;
     private JButton[] countButtons;
     private JButton stepCountButton;
+    private PopulationRecorder myRecorder;
+    private PopulationChart myChart;
     private boolean started;
     private static boolean created;
 
@@ -71,20 +73,21 @@ public class CritterFrame extends JFrame {
         if (started) {
             return;
         }
-        if (myModel.getCounts().isEmpty()) {
+        if (myModel.getCritterCounts().isEmpty()) {
             System.out.println("Nothing to simulate—no critters");
             return;
         }
         started = true;
         setupCountDisplay();
-        myModel.updateColorString();
+        setupPopulationChart();
+        myModel.updateCritterAppearance();
         pack();
         setVisible(true);
     }
 
     private void setupCountDisplay() {
-        JPanel countPanel = new JPanel(new GridLayout(myModel.getCounts().size() + 1, 1));
-        countButtons = new JButton[myModel.getCounts().size()];
+        JPanel countPanel = new JPanel(new GridLayout(myModel.getCritterCounts().size() + 1, 1));
+        countButtons = new JButton[myModel.getCritterCounts().size()];
 
         for (int i = 0; i < countButtons.length; i++) {
             countButtons[i] = new JButton();
@@ -99,8 +102,15 @@ public class CritterFrame extends JFrame {
         updateCountDisplay();
     }
 
+    private void setupPopulationChart() {
+        myRecorder = new PopulationRecorder(myModel, 512);
+        myRecorder.record(myModel);
+        myChart = new PopulationChart(myRecorder);
+        add(myChart, BorderLayout.NORTH);
+    }
+
     private void updateCountDisplay() {
-        Set<Map.Entry<String, Integer>> counts = myModel.getCounts();
+        Set<Map.Entry<String, Integer>> counts = myModel.getCritterCounts();
         int maxCount = 0;
         int maxIndex = 0;
 
@@ -120,33 +130,37 @@ public class CritterFrame extends JFrame {
         if (countButtons.length > 0) {
             countButtons[maxIndex].setForeground(Color.RED);
         }
-        stepCountButton.setText(String.format("Step = %5d", myModel.getSimulationCount()));
+        stepCountButton.setText(String.format("Step = %5d", myModel.getSimulationStepCount()));
     }
 
     public void add(int number, Class<? extends Critter> critterClass) {
         if (started) {
             return;
         }
-        myModel.add(number, critterClass);
+        myModel.addCritters(number, critterClass);
     }
 
     private void performStep() {
         myModel.update();
+        myRecorder.record(myModel);
         updateCountDisplay();
         myPicture.repaint();
+        myChart.repaint();
     }
 
     private void performMultipleSteps(int steps) {
         myTimer.stop();
-        while (myModel.getSimulationCount() % steps != 0) {
+        while (myModel.getSimulationStepCount() % steps != 0) {
             myModel.update();
+            myRecorder.record(myModel);
         }
         updateCountDisplay();
         myPicture.repaint();
+        myChart.repaint();
     }
 
     private void toggleDebug() {
-        myModel.toggleDebug();
+        myModel.toggleDebugMode();
         myPicture.repaint();
     }
 }
@@ -0,0 +1,135 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Renders world snapshots off-screen and encodes them as numbered PNG files on a worker pool
+public class CritterImageExporter implements AutoCloseable {
+    private final File directory;
+    private final ExecutorService workers;
+    private final Semaphore pendingFrames;
+    private final ThreadLocal<BufferedImage> canvas;
+    private final AtomicReference<Exception> failure;
+
+    public CritterImageExporter(File directory, int threads, int maxPendingFrames) {
+        if (threads < 1 || maxPendingFrames < 1) {
+            throw new IllegalArgumentException("Threads and pending frames must be positive.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new RuntimeException("Cannot create export directory: " + directory);
+        }
+
+        this.directory = directory;
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "critter-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingFrames = new Semaphore(maxPendingFrames);
+        this.failure = new AtomicReference<>();
+        this.canvas = new ThreadLocal<>();
+    }
+
+    // Steps the model and exports every interval-th step, including the starting state
+    public void run(CritterModel model, int steps, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        export(model);
+        for (int i = 0; i < steps; i++) {
+            model.update();
+            if (model.getSimulationStepCount() % interval == 0) {
+                export(model);
+            }
+        }
+    }
+
+    // Snapshots the model on the calling thread; blocks while too many frames are still being encoded
+    public void export(CritterModel model) {
+        checkFailure();
+        try {
+            pendingFrames.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for frame export", e);
+        }
+
+        CritterSnapshot snapshot;
+        try {
+            snapshot = new CritterSnapshot(model);
+        } catch (RuntimeException e) {
+            pendingFrames.release();
+            throw e;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    write(snapshot);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pendingFrames.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingFrames.release();
+            throw new IllegalStateException("Frame exporter is closed.", e);
+        }
+    }
+
+    public BufferedImage render(CritterSnapshot snapshot) {
+        Dimension size = CritterPanel.getWorldSize(snapshot.getWidth(), snapshot.getHeight());
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        paint(image, snapshot);
+        return image;
+    }
+
+    private void write(CritterSnapshot snapshot) throws IOException {
+        Dimension size = CritterPanel.getWorldSize(snapshot.getWidth(), snapshot.getHeight());
+        BufferedImage image = canvas.get();
+        if (image == null || image.getWidth() != size.width || image.getHeight() != size.height) {
+            image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+            canvas.set(image);
+        }
+        paint(image, snapshot);
+
+        File file = new File(directory, String.format("frame-%07d.png", snapshot.getSimulationStepCount()));
+        if (!ImageIO.write(image, "png", file)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    private void paint(BufferedImage image, CritterSnapshot snapshot) {
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(CritterPanel.BACKGROUND);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            snapshot.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void checkFailure() {
+        Exception e = failure.get();
+        if (e != null) {
+            throw new RuntimeException("Error exporting frame: " + e.getMessage(), e);
+        }
+    }
+
+    // Waits for every queued frame to be written and reports the first encoding failure
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while finishing frame export", e);
+        }
+        checkFailure();
+    }
+}
@@ -10,6 +10,7 @@ public class CritterPanel extends JPanel {
     private static boolean created;
 
     public static final int FONT_SIZE = 12;
+    public static final Color BACKGROUND = Color.CYAN;
 
     public CritterPanel(CritterModel model) {
         if (created)
@@ -17,10 +18,9 @@ public class CritterPanel extends JPanel {
         created = true;
 
         myModel = model;
-        myFont = new Font("Monospaced", Font.BOLD, FONT_SIZE + 4);
-        setBackground(Color.CYAN);
-        setPreferredSize(new Dimension(FONT_SIZE * model.getWidth() + 20,
-                                       FONT_SIZE * model.getHeight() + 20));
+        myFont = createFont();
+        setBackground(BACKGROUND);
+        setPreferredSize(getWorldSize(model.getWidth(), model.getHeight()));
     }
 
     public void paintComponent(Graphics g) {
@@ -29,14 +29,26 @@ public class CritterPanel extends JPanel {
         Iterator<Critter> i = myModel.iterator();
         while (i.hasNext()) {
             Critter next = i.next();
-            Point p = myModel.getPoint(next);
-            String appearance = myModel.getAppearance(next);
-            g.setColor(Color.BLACK);
-            g.drawString("" + appearance, p.x * FONT_SIZE + 11,
-                         p.y * FONT_SIZE + 21);
-            g.setColor(myModel.getColor(next));
-            g.drawString("" + appearance, p.x * FONT_SIZE + 10,
-                         p.y * FONT_SIZE + 20);
+            Point p = myModel.getPosition(next);
+            drawCritter(g, myModel.getAppearance(next), myModel.getColor(next), p.x, p.y);
         }
     }
+
+    // Draws one critter glyph with its black drop shadow; shared with off-screen renderers
+    public static void drawCritter(Graphics g, String appearance, Color color, int x, int y) {
+        g.setColor(Color.BLACK);
+        g.drawString("" + appearance, x * FONT_SIZE + 11,
+                     y * FONT_SIZE + 21);
+        g.setColor(color);
+        g.drawString("" + appearance, x * FONT_SIZE + 10,
+                     y * FONT_SIZE + 20);
+    }
+
+    public static Font createFont() {
+        return new Font("Monospaced", Font.BOLD, FONT_SIZE + 4);
+    }
+
+    public static Dimension getWorldSize(int width, int height) {
+        return new Dimension(FONT_SIZE * width + 20, FONT_SIZE * height + 20);
+    }
 }
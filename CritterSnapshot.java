@@ -0,0 +1,64 @@
+import java.awt.*;
+import java.util.Iterator;
+
+// Immutable copy of what is visible in the world at one step, safe to hand to other threads
+public class CritterSnapshot {
+    private final int width;
+    private final int height;
+    private final int step;
+    private final int[] xs;
+    private final int[] ys;
+    private final String[] appearances;
+    private final Color[] colors;
+
+    public CritterSnapshot(CritterModel model) {
+        this.width = model.getWidth();
+        this.height = model.getHeight();
+        this.step = model.getSimulationStepCount();
+
+        int size = 0;
+        for (Iterator<Critter> i = model.iterator(); i.hasNext(); i.next()) {
+            size++;
+        }
+        this.xs = new int[size];
+        this.ys = new int[size];
+        this.appearances = new String[size];
+        this.colors = new Color[size];
+
+        int index = 0;
+        Iterator<Critter> i = model.iterator();
+        while (i.hasNext()) {
+            Critter critter = i.next();
+            Point position = model.getPosition(critter);
+            xs[index] = position.x;
+            ys[index] = position.y;
+            appearances[index] = model.getAppearance(critter);
+            colors[index] = model.getColor(critter);
+            index++;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSimulationStepCount() {
+        return step;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    // Renders the snapshot the same way CritterPanel paints the live world
+    public void paint(Graphics g) {
+        g.setFont(CritterPanel.createFont());
+        for (int i = 0; i < xs.length; i++) {
+            CritterPanel.drawCritter(g, appearances[i], colors[i], xs[i], ys[i]);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.awt.*;
+import java.lang.reflect.Constructor;
+import java.util.*;
+import java.util.List;
+import java.util.Map.Entry;
+
+// State of one world: the grid, per-critter data and species counts. All changes go through
+// CritterWorld methods so the grid, data and counts stay consistent for every engine.
+public class CritterWorld {
+    private static final Critter.Direction[] DIRECTIONS = Critter.Direction.values();
+
+    private final int width;
+    private final int height;
+    private final Critter[][] grid;
+    private final Map<Critter, CritterData> critterInfo;
+    private final SortedMap<String, Integer> critterCount;
+    private final Random random;
+    private final List<CritterWorldListener> listeners;
+
+    public CritterWorld(int width, int height, Random random) {
+        this.width = width;
+        this.height = height;
+        this.grid = new Critter[width][height];
+        // Insertion order keeps seeded worlds reproducible
+        this.critterInfo = new LinkedHashMap<>();
+        this.critterCount = new TreeMap<>();
+        this.random = random;
+        this.listeners = new ArrayList<>();
+    }
+
+    public void addListener(CritterWorldListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CritterWorldListener listener) {
+        listeners.remove(listener);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public Set<Critter> getCritters() {
+        return critterInfo.keySet();
+    }
+
+    public int size() {
+        return critterInfo.size();
+    }
+
+    public CritterData getData(Critter critter) {
+        return critterInfo.get(critter);
+    }
+
+    public Critter getCritter(int x, int y) {
+        return grid[x][y];
+    }
+
+    public Critter getCritter(Point point) {
+        return grid[point.x][point.y];
+    }
+
+    public Set<Entry<String, Integer>> getCritterCounts() {
+        return Collections.unmodifiableSet(critterCount.entrySet());
+    }
+
+    public void addCritters(int number, Class<? extends Critter> critterClass) {
+        if (critterInfo.size() + number > width * height) {
+            throw new RuntimeException("Too many critters to add.");
+        }
+
+        Critter.Direction[] directions = Critter.Direction.values();
+
+        for (int i = 0; i < number; i++) {
+            Critter critter = createCritterInstance(critterClass);
+            int x, y;
+            do {
+                x = random.nextInt(width);
+                y = random.nextInt(height);
+            } while (grid[x][y] != null);
+
+            grid[x][y] = critter;
+            Critter.Direction direction = directions[random.nextInt(directions.length)];
+            Point position = new Point(x, y);
+            critterInfo.put(critter, new CritterData(position, direction));
+
+            String critterName = critterClass.getSimpleName();
+            critterCount.merge(critterName, 1, Integer::sum);
+            for (CritterWorldListener listener : listeners) {
+                listener.critterAdded(critter, position);
+            }
+        }
+    }
+
+    private Critter createCritterInstance(Class<? extends Critter> critterClass) {
+        try {
+            if (critterClass.equals(Bear.class)) {
+                Constructor<? extends Critter> constructor = critterClass.getDeclaredConstructor(boolean.class);
+                boolean isPolar = random.nextDouble() < 0.5;
+                return constructor.newInstance(isPolar);
+            } else {
+                return critterClass.getDeclaredConstructor().newInstance();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error creating critter instance: " + e.getMessage(), e);
+        }
+    }
+
+    // Clears the hop flag at the start of a critter's move and returns whether its last move was a hop
+    public boolean clearHopped(CritterData data) {
+        boolean hasHopped = data.hasHopped;
+        data.hasHopped = false;
+        return hasHopped;
+    }
+
+    public void updateAppearance(CritterData data, Color color, String directionSymbol) {
+        data.color = color;
+        data.directionSymbol = directionSymbol;
+    }
+
+    public void turn(CritterData data, int steps) {
+        data.direction = rotateDirection(data.direction, steps);
+    }
+
+    // Moves the critter into the given empty cell
+    public void hop(Critter critter, CritterData data, Point newPosition) {
+        Point position = data.position;
+        grid[newPosition.x][newPosition.y] = critter;
+        grid[position.x][position.y] = null;
+        data.position = newPosition;
+        data.hasHopped = true;
+        for (CritterWorldListener listener : listeners) {
+            listener.critterMoved(critter, position, newPosition);
+        }
+    }
+
+    // Replaces the critter at the given position with a new critter of the infecting species
+    public Critter infect(Critter critter, CritterData data, Point newPosition) {
+        Critter otherCritter = grid[newPosition.x][newPosition.y];
+        String otherName = otherCritter.getClass().getSimpleName();
+        critterCount.merge(otherName, -1, Integer::sum);
+
+        String newName = critter.getClass().getSimpleName();
+        critterCount.merge(newName, 1, Integer::sum);
+
+        critterInfo.remove(otherCritter);
+        Critter newCritter = createCritterInstance(critter.getClass());
+        grid[newPosition.x][newPosition.y] = newCritter;
+        critterInfo.put(newCritter, new CritterData(newPosition, data.direction));
+        for (CritterWorldListener listener : listeners) {
+            listener.critterInfected(otherCritter, newCritter, newPosition);
+        }
+        return newCritter;
+    }
+
+    public static Critter.Direction rotateDirection(Critter.Direction direction, int steps) {
+        return DIRECTIONS[(direction.ordinal() + steps) % 4];
+    }
+
+    public static Point getNextPosition(Point position, Critter.Direction direction) {
+        switch (direction) {
+            case NORTH:
+                return new Point(position.x, position.y - 1);
+            case SOUTH:
+                return new Point(position.x, position.y + 1);
+            case EAST:
+                return new Point(position.x + 1, position.y);
+            case WEST:
+                return new Point(position.x - 1, position.y);
+            default:
+                throw new IllegalArgumentException("Unknown direction: " + direction);
+        }
+    }
+
+    public boolean isWithinBounds(Point point) {
+        return point.x >= 0 && point.x < width && point.y >= 0 && point.y < height;
+    }
+
+    public static class CritterData {
+        private Point position;
+        private Critter.Direction direction;
+        private Color color;
+        private String directionSymbol;
+        private boolean hasHopped;
+
+        public CritterData(Point position, Critter.Direction direction) {
+            this.position = position;
+            this.direction = direction;
+            this.color = Color.BLACK;
+            this.directionSymbol = "?";
+            this.hasHopped = false;
+        }
+
+        public Point getPosition() {
+            return position;
+        }
+
+        public Critter.Direction getDirection() {
+            return direction;
+        }
+
+        public Color getColor() {
+            return color;
+        }
+
+        public String getDirectionSymbol() {
+            return directionSymbol;
+        }
+
+        public boolean hasHopped() {
+            return hasHopped;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+import java.awt.*;
+
+// Receives every change to a CritterWorld's grid as it happens, letting indexes and recorders stay
+// up to date without rescanning the world. Turns are not reported since they never change the grid.
+public interface CritterWorldListener {
+    public void critterAdded(Critter critter, Point position);
+    public void critterMoved(Critter critter, Point from, Point to);
+    public void critterInfected(Critter oldCritter, Critter newCritter, Point position);
+}
@@ -0,0 +1,298 @@
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.List;
+
+// Mirrors the model's grid into a memory-mapped file, guarded by a seqlock, for out-of-process viewers
+public class CritterWorldMirror implements AutoCloseable {
+    public static final int MAGIC = 0x43525452;
+    public static final int VERSION = 1;
+    public static final int MAX_SPECIES = 64;
+    public static final int MAX_APPEARANCES = 1024;
+    public static final int NAME_BYTES = 16;
+    public static final int CELL_BYTES = 12;
+    public static final long DEFAULT_READ_TIMEOUT_MILLIS = 1000;
+
+    // Header fields, in native byte order. Readers treat an odd sequence as a write in progress
+    // and retry if it changed during the read.
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int WIDTH_OFFSET = 8;
+    private static final int HEIGHT_OFFSET = 12;
+    private static final int SEQUENCE_OFFSET = 16;
+    private static final int STEP_OFFSET = 24;
+    private static final int SPECIES_COUNT_OFFSET = 32;
+    private static final int APPEARANCE_COUNT_OFFSET = 36;
+    // Species and appearance names are length byte + UTF-8, with id 0 meaning empty or unknown
+    private static final int SPECIES_OFFSET = 64;
+    private static final int APPEARANCE_OFFSET = SPECIES_OFFSET + MAX_SPECIES * NAME_BYTES;
+    // width * height cells of CELL_BYTES, column-major like the model's grid
+    private static final int CELLS_OFFSET = APPEARANCE_OFFSET + MAX_APPEARANCES * NAME_BYTES;
+
+    // Offsets within a cell: short species id, short appearance id, int RGB, byte direction ordinal
+    private static final int CELL_SPECIES = 0;
+    private static final int CELL_APPEARANCE = 2;
+    private static final int CELL_COLOR = 4;
+    private static final int CELL_DIRECTION = 8;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int width;
+    private final int height;
+    private final Map<Class<? extends Critter>, Integer> speciesIds;
+    private final Map<String, Integer> appearanceIds;
+    private int[] occupiedCells;
+    private int occupiedCount;
+    private long sequence;
+
+    public CritterWorldMirror(File file, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.speciesIds = new HashMap<>();
+        this.appearanceIds = new HashMap<>();
+        this.occupiedCells = new int[0];
+
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, getFileSize(width, height));
+        } catch (IOException e) {
+            throw new RuntimeException("Error mapping world mirror: " + e.getMessage(), e);
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        buffer.putInt(WIDTH_OFFSET, width);
+        buffer.putInt(HEIGHT_OFFSET, height);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        VarHandle.releaseFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+    }
+
+    public static long getFileSize(int width, int height) {
+        return CELLS_OFFSET + (long) width * height * CELL_BYTES;
+    }
+
+    // Copies the model's current grid into the mapped file; called on the simulation thread
+    public void publish(CritterModel model) {
+        if (model.getWidth() != width || model.getHeight() != height) {
+            throw new IllegalArgumentException("Mirror size does not match the model.");
+        }
+
+        sequence++;
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+        VarHandle.storeStoreFence();
+
+        for (int i = 0; i < occupiedCount; i++) {
+            buffer.putShort(cellOffset(occupiedCells[i]) + CELL_SPECIES, (short) 0);
+        }
+
+        occupiedCount = 0;
+        Iterator<Critter> i = model.iterator();
+        while (i.hasNext()) {
+            Critter critter = i.next();
+            Point position = model.getPosition(critter);
+            int cell = position.x * height + position.y;
+            if (occupiedCount == occupiedCells.length) {
+                occupiedCells = Arrays.copyOf(occupiedCells, Math.max(16, occupiedCount * 2));
+            }
+            occupiedCells[occupiedCount++] = cell;
+
+            int offset = cellOffset(cell);
+            buffer.putShort(offset + CELL_SPECIES, (short) getSpeciesId(critter.getClass()));
+            buffer.putShort(offset + CELL_APPEARANCE, (short) getAppearanceId(model.getAppearance(critter)));
+            buffer.putInt(offset + CELL_COLOR, model.getColor(critter).getRGB());
+            buffer.put(offset + CELL_DIRECTION, (byte) model.getDirection(critter).ordinal());
+        }
+        buffer.putLong(STEP_OFFSET, model.getSimulationStepCount());
+
+        VarHandle.releaseFence();
+        sequence++;
+        buffer.putLong(SEQUENCE_OFFSET, sequence);
+    }
+
+    private int cellOffset(int cell) {
+        return CELLS_OFFSET + cell * CELL_BYTES;
+    }
+
+    private int getSpeciesId(Class<? extends Critter> critterClass) {
+        Integer id = speciesIds.get(critterClass);
+        if (id == null) {
+            id = speciesIds.size() + 1;
+            if (id >= MAX_SPECIES) {
+                throw new RuntimeException("Too many species to mirror.");
+            }
+            speciesIds.put(critterClass, id);
+            putName(SPECIES_OFFSET + id * NAME_BYTES, critterClass.getSimpleName());
+            VarHandle.storeStoreFence();
+            buffer.putInt(SPECIES_COUNT_OFFSET, id + 1);
+        }
+        return id;
+    }
+
+    // Appearances that no longer fit in the table are published as id 0
+    private int getAppearanceId(String appearance) {
+        Integer id = appearanceIds.get(appearance);
+        if (id == null) {
+            if (appearanceIds.size() + 1 >= MAX_APPEARANCES) {
+                return 0;
+            }
+            id = appearanceIds.size() + 1;
+            appearanceIds.put(appearance, id);
+            putName(APPEARANCE_OFFSET + id * NAME_BYTES, appearance);
+            VarHandle.storeStoreFence();
+            buffer.putInt(APPEARANCE_COUNT_OFFSET, id + 1);
+        }
+        return id;
+    }
+
+    private void putName(int offset, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, NAME_BYTES - 1);
+        // Never cut a multi-byte character in half
+        while (length < bytes.length && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put(offset, (byte) length);
+        buffer.put(offset + 1, bytes, 0, length);
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing world mirror: " + e.getMessage(), e);
+        }
+    }
+
+    // Read-only view of a mirror file, intended for a separate viewer or monitoring process.
+    // Typical use: seq = beginRead(); sample cells; if (!validate(seq)) retry.
+    public static class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int width;
+        private final int height;
+        private final List<String> speciesNames;
+        private final List<String> appearances;
+
+        public Reader(File file) {
+            try {
+                this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new RuntimeException("Error mapping world mirror: " + e.getMessage(), e);
+            }
+            buffer.order(ByteOrder.nativeOrder());
+            if (buffer.capacity() < CELLS_OFFSET || buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new RuntimeException("Not a world mirror file: " + file);
+            }
+            VarHandle.acquireFence();
+            if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                throw new RuntimeException("Unsupported world mirror version: " + buffer.getInt(VERSION_OFFSET));
+            }
+
+            this.width = buffer.getInt(WIDTH_OFFSET);
+            this.height = buffer.getInt(HEIGHT_OFFSET);
+            this.speciesNames = new ArrayList<>();
+            this.appearances = new ArrayList<>();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public long beginRead() {
+            return beginRead(DEFAULT_READ_TIMEOUT_MILLIS);
+        }
+
+        // Waits until no step is being written and returns the sequence to validate against.
+        // A sequence that stays odd means the writer stalled or died in the middle of a step.
+        public long beginRead(long timeoutMillis) {
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+            long seq;
+            while (((seq = buffer.getLong(SEQUENCE_OFFSET)) & 1) != 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new RuntimeException("World mirror writer stalled or crashed at sequence " + seq);
+                }
+                Thread.onSpinWait();
+            }
+            VarHandle.acquireFence();
+            return seq;
+        }
+
+        // True if nothing was published since beginRead returned seq
+        public boolean validate(long seq) {
+            VarHandle.loadLoadFence();
+            return buffer.getLong(SEQUENCE_OFFSET) == seq;
+        }
+
+        public long getSimulationStepCount() {
+            return buffer.getLong(STEP_OFFSET);
+        }
+
+        // Returns 0 for an empty cell
+        public int getSpecies(int x, int y) {
+            return buffer.getShort(cellOffset(x, y) + CELL_SPECIES);
+        }
+
+        public String getSpeciesName(int species) {
+            return getName(speciesNames, SPECIES_OFFSET, SPECIES_COUNT_OFFSET, species);
+        }
+
+        public String getAppearance(int x, int y) {
+            return getName(appearances, APPEARANCE_OFFSET, APPEARANCE_COUNT_OFFSET,
+                    buffer.getShort(cellOffset(x, y) + CELL_APPEARANCE));
+        }
+
+        public Color getColor(int x, int y) {
+            return new Color(buffer.getInt(cellOffset(x, y) + CELL_COLOR));
+        }
+
+        public Critter.Direction getDirection(int x, int y) {
+            return Critter.Direction.values()[buffer.get(cellOffset(x, y) + CELL_DIRECTION)];
+        }
+
+        private int cellOffset(int x, int y) {
+            if (x < 0 || x >= width || y < 0 || y >= height) {
+                throw new IndexOutOfBoundsException("Cell out of bounds: " + x + ", " + y);
+            }
+            return CELLS_OFFSET + (x * height + y) * CELL_BYTES;
+        }
+
+        // Table entries are written once and never change, so they are decoded once and cached
+        private String getName(List<String> cache, int tableOffset, int countOffset, int id) {
+            if (id <= 0) {
+                return null;
+            }
+            int count = buffer.getInt(countOffset);
+            VarHandle.acquireFence();
+            while (cache.size() < Math.min(count, id + 1)) {
+                int offset = tableOffset + cache.size() * NAME_BYTES;
+                byte[] bytes = new byte[buffer.get(offset)];
+                buffer.get(offset + 1, bytes);
+                cache.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return id < cache.size() ? cache.get(id) : null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Error closing world mirror: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.awt.Point;
+import java.util.*;
+import java.util.Map.Entry;
+
+// Runs identically seeded worlds through two engines in lockstep and reports the first step at
+// which they differ. Each cell's class, recorded position, direction, hop flag and toString() are
+// compared, along with species counts and population. toString() exposes each critter's own state,
+// such as a skipped getMove call. Colors are not compared since species such as Tiger pick them
+// with their own unseeded Random.
+public class EngineEquivalenceHarness {
+    private final int width;
+    private final int height;
+    private final Map<Class<? extends Critter>, Integer> population;
+
+    public EngineEquivalenceHarness(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.population = new LinkedHashMap<>();
+    }
+
+    public EngineEquivalenceHarness add(int number, Class<? extends Critter> critterClass) {
+        population.merge(critterClass, number, Integer::sum);
+        return this;
+    }
+
+    // Returns the first divergence, or null if both engines agree for every step
+    public Divergence compare(SimulationEngine expected, SimulationEngine actual, long seed, int steps) {
+        CritterWorld expectedWorld = createWorld(seed);
+        CritterWorld actualWorld = createWorld(seed);
+
+        Divergence divergence = compareWorlds(expectedWorld, actualWorld, 0);
+        for (int step = 1; step <= steps && divergence == null; step++) {
+            expected.step(expectedWorld);
+            actual.step(actualWorld);
+            divergence = compareWorlds(expectedWorld, actualWorld, step);
+        }
+        return divergence;
+    }
+
+    private CritterWorld createWorld(long seed) {
+        CritterWorld world = new CritterWorld(width, height, new Random(seed));
+        for (Entry<Class<? extends Critter>, Integer> entry : population.entrySet()) {
+            world.addCritters(entry.getValue(), entry.getKey());
+        }
+        return world;
+    }
+
+    private Divergence compareWorlds(CritterWorld expected, CritterWorld actual, int step) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                String expectedCell = describeCell(expected, x, y);
+                String actualCell = describeCell(actual, x, y);
+                if (!expectedCell.equals(actualCell)) {
+                    return new Divergence(step, "cell (" + x + ", " + y + ")", expectedCell, actualCell);
+                }
+            }
+        }
+
+        String expectedCounts = expected.getCritterCounts().toString();
+        String actualCounts = actual.getCritterCounts().toString();
+        if (!expectedCounts.equals(actualCounts)) {
+            return new Divergence(step, "species counts", expectedCounts, actualCounts);
+        }
+        if (expected.size() != actual.size()) {
+            return new Divergence(step, "population", "" + expected.size(), "" + actual.size());
+        }
+        return null;
+    }
+
+    private String describeCell(CritterWorld world, int x, int y) {
+        Critter critter = world.getCritter(x, y);
+        if (critter == null) {
+            return "empty";
+        }
+        CritterWorld.CritterData data = world.getData(critter);
+        if (data == null) {
+            return critter.getClass().getSimpleName() + " without data";
+        }
+        Point position = data.getPosition();
+        if (position.x != x || position.y != y) {
+            return critter.getClass().getSimpleName() + " recorded at " + position;
+        }
+        return critter.getClass().getSimpleName() + " \"" + critter + "\" facing " + data.getDirection()
+               + (data.hasHopped() ? " after hop" : "");
+    }
+
+    public static class Divergence {
+        private final int step;
+        private final String location;
+        private final String expected;
+        private final String actual;
+
+        public Divergence(int step, String location, String expected, String actual) {
+            this.step = step;
+            this.location = location;
+            this.expected = expected;
+            this.actual = actual;
+        }
+
+        public int getStep() {
+            return step;
+        }
+
+        public String toString() {
+            return "Step " + step + ", " + location + ": expected " + expected + " but was " + actual;
+        }
+    }
+
+    // Usage: java EngineEquivalenceHarness <engine class> [seeds] [steps]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: java EngineEquivalenceHarness <engine class> [seeds] [steps]");
+            return;
+        }
+        int seeds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        EngineEquivalenceHarness harness = new EngineEquivalenceHarness(60, 40)
+                .add(30, Bear.class)
+                .add(30, Tiger.class)
+                .add(30, WhiteTiger.class)
+                .add(30, Giant.class)
+                .add(30, NinjaCat.class)
+                .add(30, FlyTrap.class)
+                .add(30, Food.class);
+
+        for (long seed = 0; seed < seeds; seed++) {
+            SimulationEngine engine = (SimulationEngine) Class.forName(args[0]).getDeclaredConstructor().newInstance();
+            Divergence divergence = harness.compare(new ReferenceEngine(), engine, seed, steps);
+            if (divergence != null) {
+                System.out.println("Seed " + seed + " diverged. " + divergence);
+                return;
+            }
+        }
+        System.out.println("No divergence in " + seeds + " seeds of " + steps + " steps");
+    }
+}
@@ -1,6 +1,6 @@
 import java.awt.*;
 
-public class FlyTrap extends Critter {
+public class FlyTrap extends Critter implements StatelessCritter {
     public Action getMove(CritterInfo info) {
         if (info.getFront() == Neighbor.OTHER) {
             return Action.INFECT;
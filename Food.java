@@ -1,6 +1,6 @@
 import java.awt.*;
 
-public class Food extends Critter {
+public class Food extends Critter implements StatelessCritter {
     public Action getMove(CritterInfo info) {
         return Action.INFECT;
     }
@@ -0,0 +1,57 @@
+import javax.swing.*;
+import java.awt.*;
+
+// Population-over-time chart drawn straight from a PopulationRecorder's downsampled history:
+// a faint band from each bucket's minimum to maximum with the mean drawn on top.
+public class PopulationChart extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final Color[] PALETTE = {
+        Color.RED, Color.BLUE, new Color(0, 150, 0), Color.MAGENTA,
+        Color.ORANGE, Color.DARK_GRAY, Color.PINK, new Color(0, 150, 150)
+    };
+
+    private final PopulationRecorder myRecorder;
+
+    public PopulationChart(PopulationRecorder recorder) {
+        myRecorder = recorder;
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(200, 100));
+    }
+
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int buckets = myRecorder.getBucketCount();
+        int maximum = myRecorder.getMaximum();
+        if (buckets == 0 || maximum == 0) {
+            return;
+        }
+
+        int width = getWidth();
+        int height = getHeight() - 4;
+        for (int species = 0; species < myRecorder.getSpeciesCount(); species++) {
+            Color color = PALETTE[species % PALETTE.length];
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 60));
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                int x = bucket * width / buckets;
+                g.drawLine(x, toY(myRecorder.getMinimum(species, bucket), maximum, height),
+                           x, toY(myRecorder.getMaximum(species, bucket), maximum, height));
+            }
+
+            g.setColor(color);
+            int lastX = 0;
+            int lastY = toY(myRecorder.getMean(species, 0), maximum, height);
+            for (int bucket = 1; bucket < buckets; bucket++) {
+                int x = bucket * width / buckets;
+                int y = toY(myRecorder.getMean(species, bucket), maximum, height);
+                g.drawLine(lastX, lastY, x, y);
+                lastX = x;
+                lastY = y;
+            }
+            g.drawString(myRecorder.getSpeciesName(species), 4, 14 * (species + 1));
+        }
+    }
+
+    private int toY(double value, int maximum, int height) {
+        return 2 + height - (int) (value * height / maximum);
+    }
+}
@@ -0,0 +1,296 @@
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Per-step species counts and infections, downsampled into fixed-size buckets and optionally streamed
+// to a file; record, close and the history getters must be called from the simulation thread
+public class PopulationRecorder implements CritterWorldListener, AutoCloseable {
+    public static final int BINARY_MAGIC = 0x504F5031;
+    private static final int BLOCK_ROWS = 4096;
+    private static final int BLOCKS = 4;
+
+    private final CritterModel model;
+    private final String[] speciesNames;
+    private final int columns;
+    private final int capacity;
+    private final int[][] minimums;
+    private final int[][] maximums;
+    private final long[][] sums;
+    private final int[] row;
+    private int bucketSteps;
+    private int filledBuckets;
+    private int currentSteps;
+    private int infections;
+
+    private BlockingQueue<Block> freeBlocks;
+    private BlockingQueue<Block> fullBlocks;
+    private Block currentBlock;
+    private Thread writer;
+    private volatile Exception failure;
+
+    public PopulationRecorder(CritterModel model, int capacity) {
+        if (capacity < 2 || capacity % 2 != 0) {
+            throw new IllegalArgumentException("Capacity must be a positive even number: " + capacity);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (Entry<String, Integer> entry : model.getCritterCounts()) {
+            names.add(entry.getKey());
+        }
+        this.model = model;
+        this.speciesNames = names.toArray(new String[0]);
+        this.columns = speciesNames.length + 1;
+        this.capacity = capacity;
+        this.minimums = new int[columns][capacity];
+        this.maximums = new int[columns][capacity];
+        this.sums = new long[columns][capacity];
+        this.row = new int[columns];
+        this.bucketSteps = 1;
+        model.addWorldListener(this);
+    }
+
+    @Override
+    public void critterAdded(Critter critter, Point position) {
+    }
+
+    @Override
+    public void critterMoved(Critter critter, Point from, Point to) {
+    }
+
+    @Override
+    public void critterInfected(Critter oldCritter, Critter newCritter, Point position) {
+        infections++;
+    }
+
+    // Appends the model's current counts and the infections since the previous call
+    public void record(CritterModel model) {
+        int column = 0;
+        for (Entry<String, Integer> entry : model.getCritterCounts()) {
+            if (column == speciesNames.length) {
+                throw new RuntimeException("Species added after recording started: " + entry.getKey());
+            }
+            row[column++] = entry.getValue();
+        }
+        row[column] = infections;
+        infections = 0;
+
+        addToHistory();
+        if (writer != null) {
+            addToStream(model.getSimulationStepCount());
+        }
+    }
+
+    private void addToHistory() {
+        int bucket = filledBuckets;
+        for (int i = 0; i < columns; i++) {
+            int value = row[i];
+            if (currentSteps == 0) {
+                minimums[i][bucket] = value;
+                maximums[i][bucket] = value;
+                sums[i][bucket] = value;
+            } else {
+                minimums[i][bucket] = Math.min(minimums[i][bucket], value);
+                maximums[i][bucket] = Math.max(maximums[i][bucket], value);
+                sums[i][bucket] += value;
+            }
+        }
+
+        currentSteps++;
+        if (currentSteps == bucketSteps) {
+            currentSteps = 0;
+            filledBuckets++;
+            if (filledBuckets == capacity) {
+                downsample();
+            }
+        }
+    }
+
+    // Merges each pair of buckets so the history covers the same steps in half the buckets
+    private void downsample() {
+        for (int i = 0; i < columns; i++) {
+            for (int bucket = 0; bucket < capacity / 2; bucket++) {
+                minimums[i][bucket] = Math.min(minimums[i][2 * bucket], minimums[i][2 * bucket + 1]);
+                maximums[i][bucket] = Math.max(maximums[i][2 * bucket], maximums[i][2 * bucket + 1]);
+                sums[i][bucket] = sums[i][2 * bucket] + sums[i][2 * bucket + 1];
+            }
+        }
+        filledBuckets = capacity / 2;
+        bucketSteps *= 2;
+    }
+
+    public int getSpeciesCount() {
+        return speciesNames.length;
+    }
+
+    public String getSpeciesName(int species) {
+        return speciesNames[species];
+    }
+
+    // Number of history buckets, including a partially filled last one
+    public int getBucketCount() {
+        return filledBuckets + (currentSteps > 0 ? 1 : 0);
+    }
+
+    public int getBucketSteps() {
+        return bucketSteps;
+    }
+
+    // Columns are species in getSpeciesName order, followed by infections per step
+    public int getMinimum(int column, int bucket) {
+        return minimums[column][bucket];
+    }
+
+    public int getMaximum(int column, int bucket) {
+        return maximums[column][bucket];
+    }
+
+    public double getMean(int column, int bucket) {
+        int steps = bucket == filledBuckets ? currentSteps : bucketSteps;
+        return (double) sums[column][bucket] / steps;
+    }
+
+    public int getMaximum() {
+        int maximum = 0;
+        for (int i = 0; i < speciesNames.length; i++) {
+            for (int bucket = 0; bucket < getBucketCount(); bucket++) {
+                maximum = Math.max(maximum, maximums[i][bucket]);
+            }
+        }
+        return maximum;
+    }
+
+    // Streams every row recorded from now on to the file, as CSV or as the binary format:
+    // magic, column count, species names (modified UTF-8), then rows of int step, counts, infections.
+    public void streamTo(File file, boolean binary) {
+        if (writer != null) {
+            throw new IllegalStateException("Already streaming population history.");
+        }
+
+        DataOutputStream output;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening population file: " + e.getMessage(), e);
+        }
+
+        freeBlocks = new ArrayBlockingQueue<>(BLOCKS);
+        fullBlocks = new ArrayBlockingQueue<>(BLOCKS + 1);
+        for (int i = 0; i < BLOCKS; i++) {
+            freeBlocks.add(new Block(BLOCK_ROWS * (columns + 1)));
+        }
+        currentBlock = takeFreeBlock();
+
+        writer = new Thread(() -> writeBlocks(output, binary), "population-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void addToStream(int step) {
+        checkFailure();
+        int offset = currentBlock.rows * (columns + 1);
+        currentBlock.data[offset] = step;
+        System.arraycopy(row, 0, currentBlock.data, offset + 1, columns);
+        currentBlock.rows++;
+        if (currentBlock.rows == BLOCK_ROWS) {
+            fullBlocks.add(currentBlock);
+            currentBlock = takeFreeBlock();
+        }
+    }
+
+    // Blocks while the writer is behind, so unwritten history never exceeds BLOCKS blocks
+    private Block takeFreeBlock() {
+        try {
+            Block block;
+            while ((block = freeBlocks.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                checkFailure();
+            }
+            block.rows = 0;
+            return block;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for population writer", e);
+        }
+    }
+
+    private void writeBlocks(DataOutputStream output, boolean binary) {
+        try (DataOutputStream out = output) {
+            writeHeader(out, binary);
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                Block block = fullBlocks.take();
+                for (int r = 0; r < block.rows; r++) {
+                    int offset = r * (columns + 1);
+                    if (binary) {
+                        for (int i = 0; i <= columns; i++) {
+                            out.writeInt(block.data[offset + i]);
+                        }
+                    } else {
+                        line.setLength(0);
+                        for (int i = 0; i <= columns; i++) {
+                            line.append(i == 0 ? "" : ",").append(block.data[offset + i]);
+                        }
+                        out.writeBytes(line.append('\n').toString());
+                    }
+                }
+                if (block.last) {
+                    return;
+                }
+                freeBlocks.add(block);
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+
+    private void writeHeader(DataOutputStream out, boolean binary) throws IOException {
+        if (binary) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(columns);
+            for (String name : speciesNames) {
+                out.writeUTF(name);
+            }
+        } else {
+            out.writeBytes("step," + String.join(",", speciesNames) + ",infections\n");
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new RuntimeException("Error writing population history: " + failure.getMessage(), failure);
+        }
+    }
+
+    // Stops listening to the model, flushes any streamed rows still in memory and waits for the writer
+    @Override
+    public void close() {
+        model.removeWorldListener(this);
+        if (writer == null) {
+            return;
+        }
+        currentBlock.last = true;
+        fullBlocks.add(currentBlock);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while finishing population history", e);
+        }
+        writer = null;
+        checkFailure();
+    }
+
+    private static class Block {
+        private final int[] data;
+        private int rows;
+        private boolean last;
+
+        public Block(int size) {
+            this.data = new int[size];
+        }
+    }
+}
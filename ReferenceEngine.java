@@ -0,0 +1,149 @@
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+// The original stepping rules: critters move in random order, each hop locks the hopper against
+// infection for the rest of the step, and infecting without having just hopped can fail.
+public class ReferenceEngine implements SimulationEngine {
+    public static final double HOP_ADVANTAGE = 0.2;
+
+    @Override
+    public void step(CritterWorld world) {
+        List<Critter> critters = new ArrayList<>(world.getCritters());
+        Collections.shuffle(critters, world.getRandom());
+        Set<Critter> lockedCritters = new HashSet<>();
+
+        for (Critter critter : critters) {
+            CritterWorld.CritterData data = world.getData(critter);
+            if (data == null) continue;
+
+            stepCritter(world, critter, data, lockedCritters);
+        }
+    }
+
+    protected void stepCritter(CritterWorld world, Critter critter, CritterWorld.CritterData data,
+                               Set<Critter> lockedCritters) {
+        boolean hasHopped = world.clearHopped(data);
+        Point newPosition = CritterWorld.getNextPosition(data.getPosition(), data.getDirection());
+
+        Critter.Action action = critter.getMove(getCritterInfo(world, data, critter.getClass()));
+        handleAction(world, critter, data, newPosition, action, hasHopped, lockedCritters);
+    }
+
+    protected void handleAction(CritterWorld world, Critter critter, CritterWorld.CritterData data,
+                                Point newPosition, Critter.Action action, boolean hasHopped,
+                                Set<Critter> lockedCritters) {
+        switch (action) {
+            case LEFT:
+                world.turn(data, 3);
+                break;
+            case RIGHT:
+                world.turn(data, 1);
+                break;
+            case HOP:
+                if (world.isWithinBounds(newPosition) && world.getCritter(newPosition) == null) {
+                    world.hop(critter, data, newPosition);
+                    lockedCritters.add(critter);
+                }
+                break;
+            case INFECT:
+                handleInfection(world, critter, data, newPosition, hasHopped, lockedCritters);
+                break;
+        }
+    }
+
+    protected void handleInfection(CritterWorld world, Critter critter, CritterWorld.CritterData data,
+                                   Point newPosition, boolean hasHopped, Set<Critter> lockedCritters) {
+        if (world.isWithinBounds(newPosition) && world.getCritter(newPosition) != null
+            && world.getCritter(newPosition).getClass() != critter.getClass()
+            && !lockedCritters.contains(world.getCritter(newPosition))
+            && (hasHopped || world.getRandom().nextDouble() >= HOP_ADVANTAGE)) {
+
+            Critter newCritter = world.infect(critter, data, newPosition);
+            lockedCritters.add(newCritter);
+        }
+    }
+
+    protected CritterInfo getCritterInfo(CritterWorld world, CritterWorld.CritterData data,
+                                         Class<? extends Critter> critterClass) {
+        Critter.Neighbor[] neighbors = new Critter.Neighbor[4];
+        Critter.Direction direction = data.getDirection();
+        boolean[] threats = new boolean[4];
+
+        for (int i = 0; i < 4; i++) {
+            Point neighborPoint = CritterWorld.getNextPosition(data.getPosition(), direction);
+            neighbors[i] = getNeighborStatus(world, neighborPoint, critterClass);
+            if (neighbors[i] == Critter.Neighbor.OTHER) {
+                Critter otherCritter = world.getCritter(neighborPoint);
+                Critter.Direction otherDirection = world.getData(otherCritter).getDirection();
+                threats[i] = direction == CritterWorld.rotateDirection(CritterWorld.rotateDirection(otherDirection, 2), 2);
+            }
+            direction = CritterWorld.rotateDirection(direction, 1);
+        }
+
+        return new CritterInfoImpl(neighbors, data.getDirection(), threats);
+    }
+
+    protected Critter.Neighbor getNeighborStatus(CritterWorld world, Point point, Class<? extends Critter> critterClass) {
+        if (!world.isWithinBounds(point)) return Critter.Neighbor.WALL;
+        if (world.getCritter(point) == null) return Critter.Neighbor.EMPTY;
+        return world.getCritter(point).getClass().equals(critterClass) ? Critter.Neighbor.SAME : Critter.Neighbor.OTHER;
+    }
+
+    protected static class CritterInfoImpl implements CritterInfo {
+        private final Critter.Neighbor[] neighbors;
+        private final Critter.Direction direction;
+        private final boolean[] threats;
+
+        public CritterInfoImpl(Critter.Neighbor[] neighbors, Critter.Direction direction, boolean[] threats) {
+            this.neighbors = neighbors;
+            this.direction = direction;
+            this.threats = threats;
+        }
+
+        @Override
+        public Critter.Neighbor getFront() {
+            return neighbors[0];
+        }
+
+        @Override
+        public Critter.Neighbor getBack() {
+            return neighbors[2];
+        }
+
+        @Override
+        public Critter.Neighbor getLeft() {
+            return neighbors[3];
+        }
+
+        @Override
+        public Critter.Neighbor getRight() {
+            return neighbors[1];
+        }
+
+        @Override
+        public Critter.Direction getDirection() {
+            return direction;
+        }
+
+        @Override
+        public boolean frontThreat() {
+            return threats[0];
+        }
+
+        @Override
+        public boolean backThreat() {
+            return threats[2];
+        }
+
+        @Override
+        public boolean leftThreat() {
+            return threats[3];
+        }
+
+        @Override
+        public boolean rightThreat() {
+            return threats[1];
+        }
+    }
+}
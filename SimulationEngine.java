@@ -0,0 +1,5 @@
+// Rules for advancing a CritterWorld by one step. ReferenceEngine is the behavior every other
+// engine must match; EngineEquivalenceHarness checks an engine against it.
+public interface SimulationEngine {
+    public void step(CritterWorld world);
+}
@@ -0,0 +1,200 @@
+import java.awt.*;
+import java.util.*;
+
+// Per-species Fenwick trees and frontier counts for regional queries, updated from world events
+public class SpatialIndex implements CritterWorldListener {
+    private static final int EMPTY = -1;
+
+    private final int width;
+    private final int height;
+    private final Map<Class<? extends Critter>, Integer> speciesIds;
+    private final int[] speciesAt;
+    private int[][] trees;
+    private int[] allTree;
+    private long[][] frontiers;
+
+    public SpatialIndex(CritterModel model) {
+        this.width = model.getWidth();
+        this.height = model.getHeight();
+        this.speciesIds = new HashMap<>();
+        this.speciesAt = new int[width * height];
+        Arrays.fill(speciesAt, EMPTY);
+        this.trees = new int[0][];
+        this.allTree = new int[(width + 1) * (height + 1)];
+        this.frontiers = new long[0][0];
+
+        Iterator<Critter> i = model.iterator();
+        while (i.hasNext()) {
+            Critter critter = i.next();
+            critterAdded(critter, model.getPosition(critter));
+        }
+        model.addWorldListener(this);
+    }
+
+    @Override
+    public void critterAdded(Critter critter, Point position) {
+        set(position.x, position.y, getSpeciesId(critter.getClass()));
+    }
+
+    @Override
+    public void critterMoved(Critter critter, Point from, Point to) {
+        int species = speciesAt[from.x * height + from.y];
+        clear(from.x, from.y);
+        set(to.x, to.y, species);
+    }
+
+    @Override
+    public void critterInfected(Critter oldCritter, Critter newCritter, Point position) {
+        clear(position.x, position.y);
+        set(position.x, position.y, getSpeciesId(newCritter.getClass()));
+    }
+
+    // Number of critters of the species inside the inclusive rectangle
+    public int count(Class<? extends Critter> species, int x0, int y0, int x1, int y1) {
+        Integer id = speciesIds.get(species);
+        return id == null ? 0 : count(trees[id], x0, y0, x1, y1);
+    }
+
+    // Number of critters of any species inside the inclusive rectangle
+    public int countAll(int x0, int y0, int x1, int y1) {
+        return count(allTree, x0, y0, x1, y1);
+    }
+
+    // Closest critter of a different species by Chebyshev distance, or null if there is none.
+    // Binary searches the radius and then narrows the ring down to one cell, both using counts.
+    public Point nearestEnemy(Class<? extends Critter> species, int x, int y) {
+        int maxRadius = Math.max(width, height);
+        if (countEnemies(species, x - maxRadius, y - maxRadius, x + maxRadius, y + maxRadius) == 0) {
+            return null;
+        }
+
+        int low = 0;
+        int high = maxRadius;
+        while (low < high) {
+            int radius = (low + high) / 2;
+            if (countEnemies(species, x - radius, y - radius, x + radius, y + radius) > 0) {
+                high = radius;
+            } else {
+                low = radius + 1;
+            }
+        }
+
+        int x0 = x - low, y0 = y - low, x1 = x + low, y1 = y + low;
+        while (x0 < x1 || y0 < y1) {
+            if (x1 - x0 >= y1 - y0) {
+                int middle = Math.floorDiv(x0 + x1, 2);
+                if (countEnemies(species, x0, y0, middle, y1) > 0) {
+                    x1 = middle;
+                } else {
+                    x0 = middle + 1;
+                }
+            } else {
+                int middle = Math.floorDiv(y0 + y1, 2);
+                if (countEnemies(species, x0, y0, x1, middle) > 0) {
+                    y1 = middle;
+                } else {
+                    y0 = middle + 1;
+                }
+            }
+        }
+        return new Point(x0, y0);
+    }
+
+    // Number of edge-adjacent cell pairs holding one critter of each species
+    public long getFrontierLength(Class<? extends Critter> first, Class<? extends Critter> second) {
+        Integer a = speciesIds.get(first);
+        Integer b = speciesIds.get(second);
+        if (a == null || b == null) {
+            return 0;
+        }
+        return frontiers[a][b];
+    }
+
+    private int countEnemies(Class<? extends Critter> species, int x0, int y0, int x1, int y1) {
+        return countAll(x0, y0, x1, y1) - count(species, x0, y0, x1, y1);
+    }
+
+    private int getSpeciesId(Class<? extends Critter> critterClass) {
+        Integer id = speciesIds.get(critterClass);
+        if (id == null) {
+            id = speciesIds.size();
+            speciesIds.put(critterClass, id);
+            trees = Arrays.copyOf(trees, id + 1);
+            trees[id] = new int[(width + 1) * (height + 1)];
+
+            long[][] grown = new long[id + 1][id + 1];
+            for (int i = 0; i < id; i++) {
+                System.arraycopy(frontiers[i], 0, grown[i], 0, id);
+            }
+            frontiers = grown;
+        }
+        return id;
+    }
+
+    private void set(int x, int y, int species) {
+        speciesAt[x * height + y] = species;
+        add(trees[species], x, y, 1);
+        add(allTree, x, y, 1);
+        adjustFrontiers(x, y, species, 1);
+    }
+
+    private void clear(int x, int y) {
+        int species = speciesAt[x * height + y];
+        if (species == EMPTY) {
+            return;
+        }
+        adjustFrontiers(x, y, species, -1);
+        add(trees[species], x, y, -1);
+        add(allTree, x, y, -1);
+        speciesAt[x * height + y] = EMPTY;
+    }
+
+    private void adjustFrontiers(int x, int y, int species, int delta) {
+        adjustFrontier(x - 1, y, species, delta);
+        adjustFrontier(x + 1, y, species, delta);
+        adjustFrontier(x, y - 1, species, delta);
+        adjustFrontier(x, y + 1, species, delta);
+    }
+
+    private void adjustFrontier(int x, int y, int species, int delta) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int neighbor = speciesAt[x * height + y];
+        if (neighbor != EMPTY && neighbor != species) {
+            frontiers[species][neighbor] += delta;
+            frontiers[neighbor][species] += delta;
+        }
+    }
+
+    private void add(int[] tree, int x, int y, int delta) {
+        for (int i = x + 1; i <= width; i += i & -i) {
+            for (int j = y + 1; j <= height; j += j & -j) {
+                tree[i * (height + 1) + j] += delta;
+            }
+        }
+    }
+
+    // Number of marked cells with coordinates below (x, y), exclusive
+    private int prefix(int[] tree, int x, int y) {
+        int sum = 0;
+        for (int i = x; i > 0; i -= i & -i) {
+            for (int j = y; j > 0; j -= j & -j) {
+                sum += tree[i * (height + 1) + j];
+            }
+        }
+        return sum;
+    }
+
+    private int count(int[] tree, int x0, int y0, int x1, int y1) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, width - 1);
+        y1 = Math.min(y1, height - 1);
+        if (x0 > x1 || y0 > y1) {
+            return 0;
+        }
+        return prefix(tree, x1 + 1, y1 + 1) - prefix(tree, x0, y1 + 1)
+               - prefix(tree, x1 + 1, y0) + prefix(tree, x0, y0);
+    }
+}
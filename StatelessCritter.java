@@ -0,0 +1,5 @@
+// Marker for species whose getMove depends only on the CritterInfo it is given: no fields are
+// read or updated and no randomness is used. ActiveSetEngine relies on this to reuse moves
+// between critters of the species and to skip critters whose surroundings have not changed.
+public interface StatelessCritter {
+}